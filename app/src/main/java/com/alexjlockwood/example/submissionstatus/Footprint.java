@@ -0,0 +1,80 @@
+package com.alexjlockwood.example.submissionstatus;
+
+import java.util.Set;
+
+/**
+ * Utility class for estimating how many bytes of memory an object retains. The layout constants
+ * assume ART's object model (8 byte object headers, 4 byte references, 8 byte alignment). Paths,
+ * Paints and Animators are mostly backed by native memory or by framework objects we can't
+ * inspect, so their sizes are rough constant estimates.
+ */
+final class Footprint {
+
+  static final int OBJECT_HEADER_BYTES = 8;
+  static final int ARRAY_HEADER_BYTES = 12;
+  static final int REFERENCE_BYTES = 4;
+
+  // Rough estimates for framework objects, including the native memory they hold on to.
+  // Each is derived by adding up the fields of the (API 25) classes involved.
+
+  // The fields declared by SubmissionStatusDrawable itself. A unit test checks this against
+  // the class's actual layout, so it needs to be updated when fields are added.
+  static final int DRAWABLE_DECLARED_FIELD_BYTES = 88;
+
+  // An 8 byte header, ~32 bytes of fields declared by Drawable and the fields declared by
+  // SubmissionStatusDrawable (rounded up to 128), plus the 24 byte bounds Rect.
+  static final int DRAWABLE_BYTES =
+      (int) align(OBJECT_HEADER_BYTES + 32 + DRAWABLE_DECLARED_FIELD_BYTES) + 24;
+
+  // The 32 byte GeometryBuffer owned by each drawable, plus the 16 byte invalidation callback
+  // it holds on to. A unit test checks the former against the class's actual layout.
+  static final int GEOMETRY_BUFFER_OBJECT_BYTES = 32;
+  static final int GEOMETRY_BUFFER_BYTES = GEOMETRY_BUFFER_OBJECT_BYTES + 16;
+
+  // A ~24 byte Path wrapping a native SkPath (~16 bytes) and its SkPathRef (~56 bytes), plus
+  // storage for the up to 10 points (80 bytes) and verbs of the paths drawn by this drawable.
+  static final int PATH_BYTES = 192;
+
+  // A ~64 byte Paint wrapping a native android::Paint, which extends SkPaint with typeface,
+  // locale and font feature settings (~192 bytes in total).
+  static final int PAINT_BYTES = 256;
+
+  // A ~120 byte ValueAnimator, its PropertyValuesHolder and values map (~150 bytes), a
+  // keyframe set with two keyframes (~100 bytes), the interpolator, and the listener lists
+  // holding our two listeners (~120 bytes).
+  static final int VALUE_ANIMATOR_BYTES = 512;
+
+  // A WeakHashMap entry (a WeakReference subclass with key, value, hash and next fields)
+  // plus its slot in the map's table.
+  static final int WEAK_HASH_MAP_ENTRY_BYTES = 48;
+
+  /** Rounds the given size up to the next multiple of 8 bytes. */
+  static long align(long bytes) {
+    return (bytes + 7) & ~7L;
+  }
+
+  /**
+   * Returns the size of the given array, including its sub-arrays. Arrays already contained in
+   * the visited set are skipped, so that rows shared between tables are only counted once.
+   */
+  static long sizeOf(float[][][] array, Set<Object> visited) {
+    if (!visited.add(array)) {
+      return 0;
+    }
+    long bytes = align(ARRAY_HEADER_BYTES + (long) array.length * REFERENCE_BYTES);
+    for (float[][] rows : array) {
+      if (!visited.add(rows)) {
+        continue;
+      }
+      bytes += align(ARRAY_HEADER_BYTES + (long) rows.length * REFERENCE_BYTES);
+      for (float[] row : rows) {
+        if (visited.add(row)) {
+          bytes += align(ARRAY_HEADER_BYTES + (long) row.length * 4);
+        }
+      }
+    }
+    return bytes;
+  }
+
+  private Footprint() {}
+}
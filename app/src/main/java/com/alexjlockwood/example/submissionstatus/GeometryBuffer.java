@@ -0,0 +1,108 @@
+package com.alexjlockwood.example.submissionstatus;
+
+import android.support.annotation.Nullable;
+
+/**
+ * Double buffers the {@link SubmissionStatusGeometry} used by a single drawable. When the size
+ * changes to one that isn't cached yet, the new geometry is built in the background and stored
+ * as the pending geometry, while the current geometry keeps being drawn (scaled to fit the new
+ * bounds). The pending geometry only replaces the current geometry on the next call to
+ * {@link #swap()}, which the drawable makes at the start of each draw.
+ */
+final class GeometryBuffer {
+
+  private final float mStrokeWidth;
+  private final Runnable mInvalidateCallback;
+
+  // The size most recently passed to setSize(), or -1 if no size has been set yet.
+  private int mSize = -1;
+
+  private SubmissionStatusGeometry mGeometry;
+  private SubmissionStatusGeometry mPendingGeometry;
+
+  /**
+   * @param strokeWidth the stroke width to build geometry for
+   * @param invalidateCallback invoked when a pending geometry becomes available
+   */
+  GeometryBuffer(float strokeWidth, Runnable invalidateCallback) {
+    mStrokeWidth = strokeWidth;
+    mInvalidateCallback = invalidateCallback;
+  }
+
+  /**
+   * Updates the size that geometry should be built for. On the main thread, the geometry is
+   * taken from the shared cache or, unless there is no current geometry to scale in the
+   * meantime, built in the background. On other threads it is always built synchronously
+   * without touching the shared cache.
+   */
+  void setSize(int size, boolean isMainThread) {
+    mSize = size;
+    if (mGeometry != null && mGeometry.mSize == size) {
+      // Only the position of the bounds changed, so the current geometry can be reused.
+      mPendingGeometry = null;
+      return;
+    }
+    if (!isMainThread) {
+      // The shared cache may only be accessed on the main thread (the drawable may be
+      // rendered into a Bitmap on a background thread, for example).
+      mGeometry = SubmissionStatusGeometry.create(size, mStrokeWidth);
+      mPendingGeometry = null;
+      return;
+    }
+
+    final SubmissionStatusGeometry cached = GeometryCache.get(size, mStrokeWidth);
+    if (cached != null || mGeometry == null || mGeometry.mDrawSize <= 0) {
+      // There is nothing to scale yet, so build the new geometry synchronously.
+      mGeometry = cached != null ? cached : GeometryCache.getOrCreate(size, mStrokeWidth);
+      mPendingGeometry = null;
+      return;
+    }
+
+    // Keep drawing the previous geometry (scaled to fit the new bounds) until
+    // the geometry for the new size has been built in the background.
+    GeometryCache.getAsync(size, mStrokeWidth, geometry -> {
+      // Ignore geometry for sizes we have moved on from in the meantime.
+      if (geometry.mSize == mSize) {
+        mPendingGeometry = geometry;
+        mInvalidateCallback.run();
+      }
+    });
+  }
+
+  /**
+   * Replaces the current geometry with the pending geometry (if any), and returns the
+   * current geometry, or null if no size has been set yet.
+   */
+  @Nullable
+  SubmissionStatusGeometry swap() {
+    if (mPendingGeometry != null) {
+      mGeometry = mPendingGeometry;
+      mPendingGeometry = null;
+    }
+    return mGeometry;
+  }
+
+  /** Returns the geometry currently used for drawing, or null if no size has been set yet. */
+  @Nullable
+  SubmissionStatusGeometry getGeometry() {
+    return mGeometry;
+  }
+
+  /** Returns the geometry that will replace the current geometry on the next swap, if any. */
+  @Nullable
+  SubmissionStatusGeometry getPendingGeometry() {
+    return mPendingGeometry;
+  }
+
+  /** Returns the estimated number of bytes retained by the current and pending geometry. */
+  long getGeometryBytes() {
+    long bytes = 0;
+    if (mGeometry != null) {
+      bytes += mGeometry.mRetainedBytes;
+    }
+    if (mPendingGeometry != null && mPendingGeometry != mGeometry) {
+      bytes += mPendingGeometry.mRetainedBytes;
+    }
+    return bytes;
+  }
+}
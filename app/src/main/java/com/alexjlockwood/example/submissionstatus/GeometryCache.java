@@ -0,0 +1,223 @@
+package com.alexjlockwood.example.submissionstatus;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.support.annotation.MainThread;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * A process-wide cache of {@link SubmissionStatusGeometry} instances. Geometry is built on a
+ * single low priority background thread and delivered back on the main thread, so that many
+ * drawables changing size at once (i.e. during a configuration change or list prefetch) don't
+ * stall layout. Requests for a size that is already being built are coalesced. The least
+ * recently used entries are evicted once the cache exceeds its memory budget.
+ *
+ * All methods except {@link #prewarm} must be called on the main thread.
+ */
+final class GeometryCache {
+
+  /** Callback invoked on the main thread once the requested geometry is ready. */
+  interface Callback {
+    void onGeometryReady(SubmissionStatusGeometry geometry);
+  }
+
+  // The default memory budget, which is enough for a few dozen distinct sizes.
+  private static final long DEFAULT_BUDGET_BYTES = 64 * 1024;
+
+  // An access-ordered map, so iteration starts at the least recently used entry.
+  private static final LinkedHashMap<Long, SubmissionStatusGeometry> CACHE =
+      new LinkedHashMap<>(16, 0.75f, true);
+
+  private static long sBudgetBytes = DEFAULT_BUDGET_BYTES;
+  private static long sCachedBytes;
+
+  // Callbacks waiting on geometry that is currently being built in the background.
+  private static final Map<Long, List<Callback>> IN_FLIGHT = new HashMap<>();
+
+  // Holds the background thread and the main thread handler, so that they aren't created
+  // until geometry is first built asynchronously (and so that the synchronous parts of the
+  // cache can be used without a Looper, i.e. in unit tests).
+  private static final class Threads {
+    static final Executor BACKGROUND_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+      final Thread thread = new Thread(() -> {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        runnable.run();
+      }, "SubmissionStatusGeometry");
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+    static final Executor MAIN_THREAD_EXECUTOR = MAIN_HANDLER::post;
+  }
+
+  // Replacements for the executors above, set by tests to control when work is run.
+  private static Executor sBackgroundExecutor;
+  private static Executor sMainThreadExecutor;
+
+  /** Returns the cached geometry for the given size, or null if it hasn't been built yet. */
+  @MainThread
+  @Nullable
+  static SubmissionStatusGeometry get(int size, float strokeWidth) {
+    return CACHE.get(key(size, strokeWidth));
+  }
+
+  /** Builds the geometry for the given size synchronously and caches the result. */
+  @MainThread
+  static SubmissionStatusGeometry getOrCreate(int size, float strokeWidth) {
+    final long key = key(size, strokeWidth);
+    SubmissionStatusGeometry geometry = CACHE.get(key);
+    if (geometry == null) {
+      geometry = SubmissionStatusGeometry.create(size, strokeWidth);
+      put(key, geometry);
+    }
+    return geometry;
+  }
+
+  /**
+   * Builds the geometry for the given size on the background thread and caches the result.
+   * The callback (if any) is invoked on the main thread, immediately if the geometry is
+   * already cached.
+   */
+  @MainThread
+  static void getAsync(int size, float strokeWidth, @Nullable Callback callback) {
+    final long key = key(size, strokeWidth);
+    final SubmissionStatusGeometry cached = CACHE.get(key);
+    if (cached != null) {
+      if (callback != null) {
+        callback.onGeometryReady(cached);
+      }
+      return;
+    }
+    List<Callback> callbacks = IN_FLIGHT.get(key);
+    if (callbacks != null) {
+      if (callback != null) {
+        callbacks.add(callback);
+      }
+      return;
+    }
+    callbacks = new ArrayList<>(1);
+    if (callback != null) {
+      callbacks.add(callback);
+    }
+    IN_FLIGHT.put(key, callbacks);
+    backgroundExecutor().execute(() -> {
+      final SubmissionStatusGeometry geometry = SubmissionStatusGeometry.create(size, strokeWidth);
+      mainThreadExecutor().execute(() -> {
+        put(key, geometry);
+        final List<Callback> waiting = IN_FLIGHT.remove(key);
+        for (int i = 0, count = waiting.size(); i < count; i++) {
+          waiting.get(i).onGeometryReady(geometry);
+        }
+      });
+    });
+  }
+
+  /**
+   * Schedules the geometry for each of the given sizes to be built in the background the next
+   * time the main thread's message queue becomes idle. Unlike the other methods in this class,
+   * this method may be called on any thread.
+   */
+  static void prewarm(float strokeWidth, int... sizes) {
+    final int[] sizesCopy = sizes.clone();
+    mainThreadExecutor().execute(() -> Looper.myQueue().addIdleHandler(() -> {
+      for (int size : sizesCopy) {
+        getAsync(size, strokeWidth, null);
+      }
+      return false;
+    }));
+  }
+
+  /** Returns the estimated number of bytes retained by the cached geometry. */
+  @MainThread
+  static long getCachedBytes() {
+    return sCachedBytes;
+  }
+
+  /** Returns the cached geometry, from least to most recently used. */
+  @MainThread
+  static Iterable<SubmissionStatusGeometry> getCachedGeometry() {
+    return CACHE.values();
+  }
+
+  /** Returns the memory budget for the cache, in bytes. */
+  @MainThread
+  static long getBudgetBytes() {
+    return sBudgetBytes;
+  }
+
+  /**
+   * Sets the memory budget for the cache, in bytes, evicting the least recently used entries
+   * if the cache currently exceeds it. A budget of zero disables caching entirely.
+   */
+  @MainThread
+  static void setBudgetBytes(long budgetBytes) {
+    if (budgetBytes < 0) {
+      throw new IllegalArgumentException("budgetBytes must be >= 0: " + budgetBytes);
+    }
+    sBudgetBytes = budgetBytes;
+    trimToBudget();
+  }
+
+  /** Evicts all cached geometry and forgets about any geometry being built. */
+  @MainThread
+  @VisibleForTesting
+  static void clear() {
+    CACHE.clear();
+    IN_FLIGHT.clear();
+    sCachedBytes = 0;
+  }
+
+  /**
+   * Replaces the executors used to build geometry in the background and to deliver it back on
+   * the main thread. Passing null restores the default executors.
+   */
+  @VisibleForTesting
+  static void setExecutors(
+      @Nullable Executor backgroundExecutor, @Nullable Executor mainThreadExecutor) {
+    sBackgroundExecutor = backgroundExecutor;
+    sMainThreadExecutor = mainThreadExecutor;
+  }
+
+  private static Executor backgroundExecutor() {
+    return sBackgroundExecutor != null ? sBackgroundExecutor : Threads.BACKGROUND_EXECUTOR;
+  }
+
+  private static Executor mainThreadExecutor() {
+    return sMainThreadExecutor != null ? sMainThreadExecutor : Threads.MAIN_THREAD_EXECUTOR;
+  }
+
+  private static void put(long key, SubmissionStatusGeometry geometry) {
+    final SubmissionStatusGeometry previous = CACHE.put(key, geometry);
+    if (previous != null) {
+      sCachedBytes -= previous.mRetainedBytes;
+    }
+    sCachedBytes += geometry.mRetainedBytes;
+    trimToBudget();
+  }
+
+  private static void trimToBudget() {
+    final Iterator<SubmissionStatusGeometry> it = CACHE.values().iterator();
+    while (sCachedBytes > sBudgetBytes && it.hasNext()) {
+      sCachedBytes -= it.next().mRetainedBytes;
+      it.remove();
+    }
+  }
+
+  private static long key(int size, float strokeWidth) {
+    return ((long) size << 32) | (Float.floatToIntBits(strokeWidth) & 0xffffffffL);
+  }
+
+  private GeometryCache() {}
+}
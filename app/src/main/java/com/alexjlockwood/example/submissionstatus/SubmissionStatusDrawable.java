@@ -13,22 +13,36 @@ import android.graphics.Paint;
 import android.graphics.Path;
 import android.graphics.PixelFormat;
 import android.graphics.Rect;
-import android.graphics.RectF;
 import android.graphics.drawable.Drawable;
+import android.os.Looper;
 import android.support.annotation.ColorInt;
 import android.support.annotation.FloatRange;
 import android.support.annotation.IntDef;
 import android.support.annotation.IntRange;
+import android.support.annotation.MainThread;
 import android.support.v4.content.ContextCompat;
 import android.view.animation.DecelerateInterpolator;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 /**
  * A custom drawable that animates between a done (check), late (exclamation mark), and returned
  * (refresh) icon state. The morphing animation works by translating the control points and end
  * points of three cubic bezier curves.
+ *
+ * Geometry for bounds changes made on the main thread is shared through a process-wide cache
+ * and, when the size isn't cached yet, built on a background thread. Bounds changes made on any
+ * other thread build the geometry synchronously without touching the cache.
+ *
+ * Note that the first time a drawable's bounds are set there is no previous geometry to scale,
+ * so an uncached size is still built synchronously on the UI thread. Since orientation changes
+ * and list prefetch mostly create new drawables, use {@link #prewarm(Context, int...)} to build
+ * the sizes you expect to use ahead of time.
  */
 public class SubmissionStatusDrawable extends Drawable {
 
@@ -37,7 +51,7 @@ public class SubmissionStatusDrawable extends Drawable {
   public @interface IconType {}
 
   // Note that these constants also serve as indices into the
-  // three-dimensional float[][][] arrays declared below.
+  // three-dimensional float[][][] arrays declared in SubmissionStatusGeometry.
   public static final int RETURNED = 0;
   public static final int DONE = 1;
   public static final int LATE = 2;
@@ -46,15 +60,11 @@ public class SubmissionStatusDrawable extends Drawable {
 
   private static final ArgbEvaluator ARGB_EVALUATOR = new ArgbEvaluator();
 
-  // Precomputed trig constants.
-  private static final float COS55 = MathUtils.cos(55);
-  private static final float COS35 = MathUtils.cos(35);
-  private static final float SIN55 = MathUtils.sin(55);
-  private static final float SIN35 = MathUtils.sin(35);
-
-  // Multiply this constant by R to approximate the distance between the control
-  // points and end points for a circle with radius R.
-  private static final float FOUR_SPLINE_MAGIC_NUMBER = (MathUtils.sqrt(2) - 1) * 4 / 3;
+  // Weak references to every instance created while memory tracking is enabled, used to
+  // compute process-wide memory totals.
+  private static final Set<SubmissionStatusDrawable> INSTANCES =
+      Collections.newSetFromMap(new WeakHashMap<>());
+  private static volatile boolean sMemoryTrackingEnabled;
 
   private final Paint mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
   private final Path mArrowHeadPath = new Path();
@@ -62,11 +72,6 @@ public class SubmissionStatusDrawable extends Drawable {
   private final Path mIconPath = new Path();
   private final float mIconStrokeWidth;
 
-  // The bounds used to draw the icon (we add insets automatically to ensure the icon
-  // doesn't fill the circles entire width/height).
-  private final RectF mDrawBounds = new RectF();
-  private float mInsets;
-
   @ColorInt private final int mIconColor;
   @ColorInt private final int mLateColor;
   @ColorInt private final int mDoneColor;
@@ -80,26 +85,12 @@ public class SubmissionStatusDrawable extends Drawable {
   @FloatRange(from = 0f, to = 1f) private float mProgress;
   private ValueAnimator currentAnimator;
 
-  // A three dimensional array holding the end points for the icon's bezier curves.
-  // This can be thought of as a 3-slot array of 4x2 two-dimensional arrays. The three slots
-  // map to the end points for the refresh, done, and late icon types respectively. Each icon
-  // type has 4 end points total, and each end point is defined by an (x,y) coordinate, so the
-  // array's final dimensions are 3x4x2.
-  private float[][][] mEndPoints;
-
-  // Two three dimensional arrays holding the control points points for the icon's bezier curves.
-  // Each can be thought of as a 3-slot array of 3x2 two-dimensional arrays. The three slots
-  // map to the control points for the refresh, done, and late icon types respectively. Each of the
-  // three bezier curves have two control points total, and each of these points is defined by
-  // an (x,y) coordinate, so each array's final dimensions are 3x3x2.
-  private float[][][] mControlPoints1;
-  private float[][][] mControlPoints2;
+  // Holds the geometry currently used to draw the icon, and the geometry that will replace it
+  // on the next call to draw() once it has finished being built in the background.
+  private final GeometryBuffer mGeometryBuffer;
 
-  // A 3x4x2 array holding the points that draw the returned icon's arrow head.
-  private float[][][] mArrowHeadPoints;
-
-  // A 3x3x2 array holding the points that draw the late icon's exclamation dot.
-  private float[][][] mExclamationDotPoints;
+  // Whether this instance was registered for process-wide memory tracking when it was created.
+  private final boolean mMemoryTracked;
 
   // Debugging stuff.
   private final float mDebugControlPointRadius;
@@ -127,6 +118,118 @@ public class SubmissionStatusDrawable extends Drawable {
     mDebugAnimationDuration = ANIMATION_DURATION * 5;
     mDebugStrokeWidth = res.getDimension(R.dimen.debug_bounds_stroke_width);
     mDebugStrokeColor = Color.BLACK;
+
+    mGeometryBuffer = new GeometryBuffer(mIconStrokeWidth, this::invalidateSelf);
+
+    mMemoryTracked = sMemoryTrackingEnabled;
+    if (mMemoryTracked) {
+      synchronized (INSTANCES) {
+        INSTANCES.add(this);
+      }
+    }
+  }
+
+  /**
+   * Builds the geometry for drawables with the given sizes (in pixels) in the background the
+   * next time the main thread becomes idle, so that these sizes can later be laid out without
+   * any extra work on the UI thread. Typically called during app startup.
+   *
+   * This is the only way to keep the first layout of a new drawable off the UI thread: without
+   * a cached geometry for its size, a new drawable builds its geometry synchronously, since it
+   * has no previous geometry to scale in the meantime. The cache's memory budget (see
+   * {@link #setGeometryCacheBudget(long)}) may evict prewarmed sizes that go unused.
+   */
+  public static void prewarm(Context ctx, int... sizes) {
+    GeometryCache.prewarm(ctx.getResources().getDimension(R.dimen.stroke_width), sizes);
+  }
+
+  /* Memory accounting. */
+
+  /**
+   * Enables/disables tracking of drawables created from now on, so that they are included in
+   * {@link #getTotalRetainedBytes()}. Tracking is disabled by default since it costs a little
+   * extra memory per drawable. Drawables that are already being tracked remain tracked.
+   */
+  public static void setMemoryTrackingEnabled(boolean enabled) {
+    sMemoryTrackingEnabled = enabled;
+  }
+
+  /**
+   * Returns the estimated number of bytes retained by this drawable, not including its geometry
+   * (which may be shared with other drawables of the same size and is reported separately by
+   * {@link #getGeometryBytes()}).
+   */
+  public long getRetainedBytes() {
+    return Footprint.DRAWABLE_BYTES
+        + Footprint.GEOMETRY_BUFFER_BYTES
+        + 3 * Footprint.PATH_BYTES
+        + Footprint.PAINT_BYTES
+        + (currentAnimator != null ? Footprint.VALUE_ANIMATOR_BYTES : 0)
+        + (mMemoryTracked ? Footprint.WEAK_HASH_MAP_ENTRY_BYTES : 0);
+  }
+
+  /**
+   * Returns the estimated number of bytes retained by the geometry (i.e. the keyframe tables)
+   * this drawable currently draws with, plus the geometry waiting to replace it, if any. This
+   * geometry may be shared with the geometry cache and with other drawables of the same size,
+   * so adding up this value for several drawables may count the same geometry more than once.
+   * Together with {@link #getRetainedBytes()}, this is the full footprint of this drawable.
+   */
+  public long getGeometryBytes() {
+    return mGeometryBuffer.getGeometryBytes();
+  }
+
+  /**
+   * Returns the estimated number of bytes retained by all live drawables created while memory
+   * tracking was enabled (see {@link #setMemoryTrackingEnabled(boolean)}), plus the geometry
+   * they share (whether it is still cached or only referenced by the drawables) and the rest
+   * of the shared geometry cache.
+   */
+  @MainThread
+  public static long getTotalRetainedBytes() {
+    final Set<Object> geometries = Collections.newSetFromMap(new IdentityHashMap<>());
+    long bytes = 0;
+    synchronized (INSTANCES) {
+      for (SubmissionStatusDrawable drawable : INSTANCES) {
+        bytes += drawable.getRetainedBytes();
+        final SubmissionStatusGeometry geometry = drawable.mGeometryBuffer.getGeometry();
+        if (geometry != null && geometries.add(geometry)) {
+          bytes += geometry.mRetainedBytes;
+        }
+        final SubmissionStatusGeometry pending = drawable.mGeometryBuffer.getPendingGeometry();
+        if (pending != null && geometries.add(pending)) {
+          bytes += pending.mRetainedBytes;
+        }
+      }
+    }
+    for (SubmissionStatusGeometry geometry : GeometryCache.getCachedGeometry()) {
+      if (geometries.add(geometry)) {
+        bytes += geometry.mRetainedBytes;
+      }
+    }
+    return bytes;
+  }
+
+  /** Returns the estimated number of bytes retained by the shared geometry cache. */
+  @MainThread
+  public static long getGeometryCacheBytes() {
+    return GeometryCache.getCachedBytes();
+  }
+
+  /**
+   * Sets the memory budget (in bytes) for the shared geometry cache. The least recently used
+   * sizes are evicted whenever the cache grows beyond the budget. Drawables currently using an
+   * evicted size keep their geometry until they are resized.
+   */
+  @MainThread
+  public static void setGeometryCacheBudget(@IntRange(from = 0) long budgetBytes) {
+    GeometryCache.setBudgetBytes(budgetBytes);
+  }
+
+  /** Returns the memory budget (in bytes) for the shared geometry cache. */
+  @MainThread
+  public static long getGeometryCacheBudget() {
+    return GeometryCache.getBudgetBytes();
   }
 
   /* Public API (setting the icon type with and without animation). */
@@ -196,103 +299,8 @@ public class SubmissionStatusDrawable extends Drawable {
     super.onBoundsChange(bounds);
 
     // TODO: make sure things display properly even with non-square views
-    final float totalSize = Math.min(getBounds().width(), getBounds().height());
-    final float totalRadius = totalSize / 2;
-    mInsets = (totalSize - MathUtils.sqrt(2 * totalRadius * totalRadius)) / 2;
-    mDrawBounds.set(0, 0, bounds.width() - 2 * mInsets, bounds.height() - 2 * mInsets);
-
-    // Please forgive me for these variable names... :D
-    final float s = Math.min(mDrawBounds.width(), mDrawBounds.height());
-    final float r = s / 2;
-    final float sw = mIconStrokeWidth; // icon stroke width
-    final float ep = s / 6; // exclamation padding
-    final float elbl = s - 2.5f * sw - 2 * ep; // exclamation long bar length
-
-    mEndPoints = new float[][][]{
-        {
-            {0, r},
-            {r, 0},
-            {s, r},
-            {r, s},
-        }, // returned end points
-        {
-            {r - r * COS35, r - r * SIN35},
-            {r - r / 2 * COS35, r - r / 2 * SIN35},
-            {r, s / 2},
-            {r - r / 2 * COS55, r + r / 2 * SIN55},
-        }, // done end points
-        {
-            {r, ep},
-            {r, ep + elbl / 3},
-            {r, ep + 2 * elbl / 3},
-            {r, ep + elbl},
-        } // late end points
-    };
-
-    mControlPoints1 = new float[][][]{
-        {
-            {0, r - r * FOUR_SPLINE_MAGIC_NUMBER},
-            {r + r * FOUR_SPLINE_MAGIC_NUMBER, 0},
-            {s, r + r * FOUR_SPLINE_MAGIC_NUMBER},
-        }, // returned cp1s
-        {
-            {r - (r * 5 / 6) * COS35, r - (r * 5 / 6) * SIN35},
-            {r - (r * 2 / 6) * COS35, r - (r * 2 / 6) * SIN35},
-            {r - (r / 6) * COS55, r + (r / 6) * SIN55},
-        }, // done cp1s
-        {
-            {r, ep + elbl / 9},
-            {r, ep + 4 * elbl / 9},
-            {r, ep + 7 * elbl / 9},
-        }, // late cp1s
-    };
-
-    mControlPoints2 = new float[][][]{
-        {
-            {r - r * FOUR_SPLINE_MAGIC_NUMBER, 0},
-            {s, r - r * FOUR_SPLINE_MAGIC_NUMBER},
-            {r + r * FOUR_SPLINE_MAGIC_NUMBER, s},
-        }, // returned cp2s
-        {
-            {r - (r * 4 / 6) * COS35, r - (r * 4 / 6) * SIN35},
-            {r - (r / 6) * COS35, r - (r / 6) * SIN35},
-            {r - (r * 2 / 6) * COS55, r + (r * 2 / 6) * SIN55},
-        }, // done cp2s
-        {
-            {r, ep + 2 * elbl / 9},
-            {r, ep + 5 * elbl / 9},
-            {r, ep + 8 * elbl / 9},
-        }, // late cp2s
-    };
-
-    // TODO: add extra padding above and below the exclamation point mark
-    // TODO: figure out nicer way to animate in/out the exclamation mark dot (?)
-    mExclamationDotPoints = new float[][][]{
-        {mEndPoints[0][3], mEndPoints[0][3], mEndPoints[0][3], mEndPoints[0][3]}, // returned exclamation dot points
-        {mEndPoints[1][3], mEndPoints[1][3], mEndPoints[1][3], mEndPoints[1][3]}, // done exclamation dot points
-        {
-            {r - sw / 2, s - sw - ep},
-            {r + sw / 2, s - sw - ep},
-            {r + sw / 2, s - ep},
-            {r - sw / 2, s - ep},
-        }, // late exclamation dot points
-    };
-
-    final float arrowHeadSize = 4 * mIconStrokeWidth;
-    final float arrowHeadHeight = arrowHeadSize * MathUtils.cos(30);
-    final float returnedEndX = mEndPoints[0][0][0];
-    // Subtract one pixel to ensure arrow head and returned arc connect.
-    final float returnedEndY = mEndPoints[0][0][1] - 1;
-
-    mArrowHeadPoints = new float[][][]{
-        {
-            {returnedEndX, returnedEndY + arrowHeadHeight},
-            {returnedEndX - arrowHeadSize / 2, returnedEndY},
-            {returnedEndX + arrowHeadSize / 2, returnedEndY},
-        }, // returned arrow head points
-        {mEndPoints[1][0], mEndPoints[1][0], mEndPoints[1][0]}, // done arrow head points
-        {mEndPoints[2][0], mEndPoints[2][0], mEndPoints[2][0]}, // late arrow head points
-    };
+    final int size = Math.min(bounds.width(), bounds.height());
+    mGeometryBuffer.setSize(size, Looper.myLooper() == Looper.getMainLooper());
   }
 
   @Override
@@ -303,10 +311,21 @@ public class SubmissionStatusDrawable extends Drawable {
     final float radius = Math.min(getBounds().width(), getBounds().height()) / 2f;
     canvas.drawCircle(getBounds().centerX(), getBounds().centerY(), radius, mPaint);
 
+    final SubmissionStatusGeometry geometry = mGeometryBuffer.swap();
+    if (geometry == null) {
+      return;
+    }
+
+    final int size = Math.min(getBounds().width(), getBounds().height());
+    final float insets = SubmissionStatusGeometry.computeInsets(size);
     canvas.save();
-    canvas.translate(mInsets, mInsets);
+    canvas.translate(insets, insets);
+    if (geometry.mSize != size) {
+      final float scale = (size - 2 * insets) / geometry.mDrawSize;
+      canvas.scale(scale, scale);
+    }
 
-    final float r = Math.min(mDrawBounds.width(), mDrawBounds.height()) / 2;
+    final float r = geometry.mDrawSize / 2;
     final boolean animatingFromDone = mPrevIconType == DONE;
     final boolean animatingToDone = mCurrIconType == DONE;
 
@@ -314,8 +333,9 @@ public class SubmissionStatusDrawable extends Drawable {
       // Ensure the check icon is properly centered.
       final float progress = animatingToDone ? mProgress : 1 - mProgress;
       canvas.translate(
-          MathUtils.lerp(0, -(r / 2 * COS55 - r / 4 * COS35), progress),
-          MathUtils.lerp(0, r / 2 * COS55, progress));
+          MathUtils.lerp(0, -(r / 2 * SubmissionStatusGeometry.COS55
+              - r / 4 * SubmissionStatusGeometry.COS35), progress),
+          MathUtils.lerp(0, r / 2 * SubmissionStatusGeometry.COS55, progress));
     }
 
     if (animatingToDone) {
@@ -373,43 +393,43 @@ public class SubmissionStatusDrawable extends Drawable {
    */
 
   private float cp1x(@IntRange(from = 0, to = 2) int i) {
-    return lerpx(mControlPoints1, i);
+    return lerpx(mGeometryBuffer.getGeometry().mControlPoints1, i);
   }
 
   private float cp1y(@IntRange(from = 0, to = 2) int i) {
-    return lerpy(mControlPoints1, i);
+    return lerpy(mGeometryBuffer.getGeometry().mControlPoints1, i);
   }
 
   private float cp2x(@IntRange(from = 0, to = 2) int i) {
-    return lerpx(mControlPoints2, i);
+    return lerpx(mGeometryBuffer.getGeometry().mControlPoints2, i);
   }
 
   private float cp2y(@IntRange(from = 0, to = 2) int i) {
-    return lerpy(mControlPoints2, i);
+    return lerpy(mGeometryBuffer.getGeometry().mControlPoints2, i);
   }
 
   private float endx(@IntRange(from = 0, to = 3) int i) {
-    return lerpx(mEndPoints, i);
+    return lerpx(mGeometryBuffer.getGeometry().mEndPoints, i);
   }
 
   private float endy(@IntRange(from = 0, to = 3) int i) {
-    return lerpy(mEndPoints, i);
+    return lerpy(mGeometryBuffer.getGeometry().mEndPoints, i);
   }
 
   private float arrowx(@IntRange(from = 0, to = 2) int i) {
-    return lerpx(mArrowHeadPoints, i);
+    return lerpx(mGeometryBuffer.getGeometry().mArrowHeadPoints, i);
   }
 
   private float arrowy(@IntRange(from = 0, to = 2) int i) {
-    return lerpy(mArrowHeadPoints, i);
+    return lerpy(mGeometryBuffer.getGeometry().mArrowHeadPoints, i);
   }
 
   private float dotx(@IntRange(from = 0, to = 3) int i) {
-    return lerpx(mExclamationDotPoints, i);
+    return lerpx(mGeometryBuffer.getGeometry().mExclamationDotPoints, i);
   }
 
   private float doty(@IntRange(from = 0, to = 3) int i) {
-    return lerpy(mExclamationDotPoints, i);
+    return lerpy(mGeometryBuffer.getGeometry().mExclamationDotPoints, i);
   }
 
   private float lerpx(float[][][] points, int i) {
@@ -0,0 +1,185 @@
+package com.alexjlockwood.example.submissionstatus;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Immutable keyframe tables for a {@link SubmissionStatusDrawable} of a given size. Instances
+ * hold no references to Android objects, so they can safely be built on a background thread
+ * and shared between any number of drawables with the same size and stroke width.
+ */
+final class SubmissionStatusGeometry {
+
+  // Precomputed trig constants.
+  static final float COS55 = MathUtils.cos(55);
+  static final float COS35 = MathUtils.cos(35);
+  private static final float SIN55 = MathUtils.sin(55);
+  private static final float SIN35 = MathUtils.sin(35);
+
+  // Multiply this constant by R to approximate the distance between the control
+  // points and end points for a circle with radius R.
+  private static final float FOUR_SPLINE_MAGIC_NUMBER = (MathUtils.sqrt(2) - 1) * 4 / 3;
+
+  // The size of the bounds (i.e. the smaller of its width and height) and the
+  // stroke width that this geometry was built for.
+  final int mSize;
+  final float mStrokeWidth;
+
+  // The insets applied to the bounds before drawing the icon (we add insets automatically
+  // to ensure the icon doesn't fill the circles entire width/height), and the size of the
+  // remaining square in which the icon is drawn.
+  final float mInsets;
+  final float mDrawSize;
+
+  // A three dimensional array holding the end points for the icon's bezier curves.
+  // This can be thought of as a 3-slot array of 4x2 two-dimensional arrays. The three slots
+  // map to the end points for the refresh, done, and late icon types respectively. Each icon
+  // type has 4 end points total, and each end point is defined by an (x,y) coordinate, so the
+  // array's final dimensions are 3x4x2.
+  final float[][][] mEndPoints;
+
+  // Two three dimensional arrays holding the control points points for the icon's bezier curves.
+  // Each can be thought of as a 3-slot array of 3x2 two-dimensional arrays. The three slots
+  // map to the control points for the refresh, done, and late icon types respectively. Each of the
+  // three bezier curves have two control points total, and each of these points is defined by
+  // an (x,y) coordinate, so each array's final dimensions are 3x3x2.
+  final float[][][] mControlPoints1;
+  final float[][][] mControlPoints2;
+
+  // A 3x4x2 array holding the points that draw the returned icon's arrow head.
+  final float[][][] mArrowHeadPoints;
+
+  // A 3x3x2 array holding the points that draw the late icon's exclamation dot.
+  final float[][][] mExclamationDotPoints;
+
+  // The estimated number of bytes retained by this instance.
+  final long mRetainedBytes;
+
+  /** Returns the insets used to draw the icon inside a circle with the given size. */
+  static float computeInsets(float size) {
+    final float radius = size / 2;
+    return (size - MathUtils.sqrt(2 * radius * radius)) / 2;
+  }
+
+  /** Builds the keyframe tables for bounds with the given size. Safe to call on any thread. */
+  static SubmissionStatusGeometry create(int size, float strokeWidth) {
+    return new SubmissionStatusGeometry(size, strokeWidth);
+  }
+
+  private SubmissionStatusGeometry(int size, float strokeWidth) {
+    mSize = size;
+    mStrokeWidth = strokeWidth;
+    mInsets = computeInsets(size);
+    mDrawSize = size - 2 * mInsets;
+
+    // Please forgive me for these variable names... :D
+    final float s = mDrawSize;
+    final float r = s / 2;
+    final float sw = strokeWidth; // icon stroke width
+    final float ep = s / 6; // exclamation padding
+    final float elbl = s - 2.5f * sw - 2 * ep; // exclamation long bar length
+
+    mEndPoints = new float[][][]{
+        {
+            {0, r},
+            {r, 0},
+            {s, r},
+            {r, s},
+        }, // returned end points
+        {
+            {r - r * COS35, r - r * SIN35},
+            {r - r / 2 * COS35, r - r / 2 * SIN35},
+            {r, s / 2},
+            {r - r / 2 * COS55, r + r / 2 * SIN55},
+        }, // done end points
+        {
+            {r, ep},
+            {r, ep + elbl / 3},
+            {r, ep + 2 * elbl / 3},
+            {r, ep + elbl},
+        } // late end points
+    };
+
+    mControlPoints1 = new float[][][]{
+        {
+            {0, r - r * FOUR_SPLINE_MAGIC_NUMBER},
+            {r + r * FOUR_SPLINE_MAGIC_NUMBER, 0},
+            {s, r + r * FOUR_SPLINE_MAGIC_NUMBER},
+        }, // returned cp1s
+        {
+            {r - (r * 5 / 6) * COS35, r - (r * 5 / 6) * SIN35},
+            {r - (r * 2 / 6) * COS35, r - (r * 2 / 6) * SIN35},
+            {r - (r / 6) * COS55, r + (r / 6) * SIN55},
+        }, // done cp1s
+        {
+            {r, ep + elbl / 9},
+            {r, ep + 4 * elbl / 9},
+            {r, ep + 7 * elbl / 9},
+        }, // late cp1s
+    };
+
+    mControlPoints2 = new float[][][]{
+        {
+            {r - r * FOUR_SPLINE_MAGIC_NUMBER, 0},
+            {s, r - r * FOUR_SPLINE_MAGIC_NUMBER},
+            {r + r * FOUR_SPLINE_MAGIC_NUMBER, s},
+        }, // returned cp2s
+        {
+            {r - (r * 4 / 6) * COS35, r - (r * 4 / 6) * SIN35},
+            {r - (r / 6) * COS35, r - (r / 6) * SIN35},
+            {r - (r * 2 / 6) * COS55, r + (r * 2 / 6) * SIN55},
+        }, // done cp2s
+        {
+            {r, ep + 2 * elbl / 9},
+            {r, ep + 5 * elbl / 9},
+            {r, ep + 8 * elbl / 9},
+        }, // late cp2s
+    };
+
+    // TODO: add extra padding above and below the exclamation point mark
+    // TODO: figure out nicer way to animate in/out the exclamation mark dot (?)
+    mExclamationDotPoints = new float[][][]{
+        {mEndPoints[0][3], mEndPoints[0][3], mEndPoints[0][3], mEndPoints[0][3]}, // returned exclamation dot points
+        {mEndPoints[1][3], mEndPoints[1][3], mEndPoints[1][3], mEndPoints[1][3]}, // done exclamation dot points
+        {
+            {r - sw / 2, s - sw - ep},
+            {r + sw / 2, s - sw - ep},
+            {r + sw / 2, s - ep},
+            {r - sw / 2, s - ep},
+        }, // late exclamation dot points
+    };
+
+    final float arrowHeadSize = 4 * sw;
+    final float arrowHeadHeight = arrowHeadSize * MathUtils.cos(30);
+    final float returnedEndX = mEndPoints[0][0][0];
+    // Subtract one pixel to ensure arrow head and returned arc connect.
+    final float returnedEndY = mEndPoints[0][0][1] - 1;
+
+    mArrowHeadPoints = new float[][][]{
+        {
+            {returnedEndX, returnedEndY + arrowHeadHeight},
+            {returnedEndX - arrowHeadSize / 2, returnedEndY},
+            {returnedEndX + arrowHeadSize / 2, returnedEndY},
+        }, // returned arrow head points
+        {mEndPoints[1][0], mEndPoints[1][0], mEndPoints[1][0]}, // done arrow head points
+        {mEndPoints[2][0], mEndPoints[2][0], mEndPoints[2][0]}, // late arrow head points
+    };
+
+    mRetainedBytes = computeRetainedBytes();
+  }
+
+  private long computeRetainedBytes() {
+    // The arrow head and exclamation dot tables reuse some of the end point rows,
+    // so use an identity set to avoid counting those rows more than once.
+    final Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+    final long shallowBytes = Footprint.align(
+        Footprint.OBJECT_HEADER_BYTES + 4 * 4 + 5 * Footprint.REFERENCE_BYTES + 8);
+    return shallowBytes
+        + Footprint.sizeOf(mEndPoints, visited)
+        + Footprint.sizeOf(mControlPoints1, visited)
+        + Footprint.sizeOf(mControlPoints2, visited)
+        + Footprint.sizeOf(mArrowHeadPoints, visited)
+        + Footprint.sizeOf(mExclamationDotPoints, visited);
+  }
+}
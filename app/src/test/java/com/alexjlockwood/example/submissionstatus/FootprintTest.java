@@ -0,0 +1,82 @@
+package com.alexjlockwood.example.submissionstatus;
+
+import org.junit.Test;
+import org.openjdk.jol.info.ClassLayout;
+import org.openjdk.jol.info.FieldLayout;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FootprintTest {
+
+  @Test
+  public void align_roundsUpToMultipleOfEight() {
+    assertEquals(0, Footprint.align(0));
+    assertEquals(8, Footprint.align(1));
+    assertEquals(24, Footprint.align(20));
+    assertEquals(24, Footprint.align(24));
+  }
+
+  @Test
+  public void sizeOf_countsUniqueArrays() {
+    // Outer array: 12 + 2 * 4 = 20 -> 24 bytes. Each row array: 12 + 2 * 4 = 20 -> 24 bytes.
+    // Each float[2]: 12 + 2 * 4 = 20 -> 24 bytes.
+    final float[][][] array = {
+        {new float[2], new float[2]},
+        {new float[2], new float[2]},
+    };
+    assertEquals(24 + 2 * 24 + 4 * 24, Footprint.sizeOf(array, newVisitedSet()));
+  }
+
+  @Test
+  public void sizeOf_countsSharedRowsOnce() {
+    final float[] shared = new float[2];
+    final float[][][] array = {
+        {shared, shared},
+        {shared, new float[2]},
+    };
+    assertEquals(24 + 2 * 24 + 2 * 24, Footprint.sizeOf(array, newVisitedSet()));
+  }
+
+  @Test
+  public void sizeOf_countsRowsSharedBetweenArraysOnce() {
+    final float[][][] first = {{new float[2], new float[2]}};
+    final float[][][] second = {{first[0][0], first[0][1]}, first[0]};
+    final Set<Object> visited = newVisitedSet();
+    // The outer array of the first table holds a single row array: 12 + 4 = 16 bytes.
+    assertEquals(16 + 24 + 2 * 24, Footprint.sizeOf(first, visited));
+    // Only the outer array and its first (new) row array haven't been counted yet.
+    assertEquals(24 + 24, Footprint.sizeOf(second, visited));
+    assertEquals(0, Footprint.sizeOf(first, visited));
+  }
+
+  @Test
+  public void drawableDeclaredFields_fitInEstimate() {
+    // Only the fields declared by SubmissionStatusDrawable are checked, since the Drawable
+    // stubs on the test classpath don't declare the framework's private fields. Fields take
+    // the same space here as on ART, as long as the JVM uses compressed (4 byte) references.
+    long declaredBytes = 0;
+    for (FieldLayout field : ClassLayout.parseClass(SubmissionStatusDrawable.class).fields()) {
+      if (field.hostClass().equals(SubmissionStatusDrawable.class.getName())) {
+        declaredBytes += field.size();
+      }
+    }
+    assertTrue("declared fields take " + declaredBytes + " bytes",
+        declaredBytes <= Footprint.DRAWABLE_DECLARED_FIELD_BYTES);
+  }
+
+  @Test
+  public void geometryBufferSize_fitsInEstimate() {
+    final long instanceBytes = ClassLayout.parseClass(GeometryBuffer.class).instanceSize();
+    assertTrue("instance size was " + instanceBytes,
+        instanceBytes <= Footprint.GEOMETRY_BUFFER_OBJECT_BYTES);
+  }
+
+  private static Set<Object> newVisitedSet() {
+    return Collections.newSetFromMap(new IdentityHashMap<>());
+  }
+}
@@ -0,0 +1,168 @@
+package com.alexjlockwood.example.submissionstatus;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class GeometryBufferTest {
+
+  private static final float STROKE_WIDTH = 10;
+
+  private final QueueExecutor mBackgroundExecutor = new QueueExecutor();
+  private final QueueExecutor mMainThreadExecutor = new QueueExecutor();
+
+  private GeometryBuffer mBuffer;
+  private int mInvalidateCount;
+
+  @Before
+  public void setUp() {
+    GeometryCache.clear();
+    GeometryCache.setExecutors(mBackgroundExecutor, mMainThreadExecutor);
+    mBuffer = new GeometryBuffer(STROKE_WIDTH, () -> mInvalidateCount++);
+  }
+
+  @After
+  public void tearDown() {
+    GeometryCache.setExecutors(null, null);
+    GeometryCache.clear();
+  }
+
+  @Test
+  public void setSize_buildsFirstGeometrySynchronously() {
+    mBuffer.setSize(48, true);
+    assertEquals(48, mBuffer.getGeometry().mSize);
+    assertSame(mBuffer.getGeometry(), GeometryCache.get(48, STROKE_WIDTH));
+    assertEquals(0, mBackgroundExecutor.size());
+  }
+
+  @Test
+  public void setSize_usesCachedGeometrySynchronously() {
+    final SubmissionStatusGeometry cached = GeometryCache.getOrCreate(96, STROKE_WIDTH);
+    mBuffer.setSize(48, true);
+    mBuffer.setSize(96, true);
+    assertSame(cached, mBuffer.getGeometry());
+    assertNull(mBuffer.getPendingGeometry());
+    assertEquals(0, mBackgroundExecutor.size());
+  }
+
+  @Test
+  public void setSize_buildsNewSizeInBackground() {
+    mBuffer.setSize(48, true);
+    final SubmissionStatusGeometry previous = mBuffer.getGeometry();
+    mBuffer.setSize(96, true);
+    assertSame(previous, mBuffer.getGeometry());
+    assertNull(mBuffer.getPendingGeometry());
+    assertEquals(1, mBackgroundExecutor.size());
+
+    runBackgroundWork();
+    assertEquals(96, mBuffer.getPendingGeometry().mSize);
+    assertEquals(1, mInvalidateCount);
+  }
+
+  @Test
+  public void setSize_swapsPendingGeometryOnlyOnNextDraw() {
+    mBuffer.setSize(48, true);
+    final SubmissionStatusGeometry previous = mBuffer.getGeometry();
+    mBuffer.setSize(96, true);
+    runBackgroundWork();
+    final SubmissionStatusGeometry pending = mBuffer.getPendingGeometry();
+
+    // The current geometry stays in place until the next draw swaps the buffers.
+    assertSame(previous, mBuffer.getGeometry());
+    assertSame(pending, mBuffer.swap());
+    assertSame(pending, mBuffer.getGeometry());
+    assertNull(mBuffer.getPendingGeometry());
+    assertSame(pending, mBuffer.swap());
+  }
+
+  @Test
+  public void setSize_ignoresLateGeometryForPreviousSize() {
+    mBuffer.setSize(48, true);
+    mBuffer.setSize(96, true);
+    mBuffer.setSize(144, true);
+    assertEquals(2, mBackgroundExecutor.size());
+
+    // Deliver the geometry for 96 after the bounds have already moved on to 144.
+    mBackgroundExecutor.runNext();
+    mMainThreadExecutor.runAll();
+    assertNull(mBuffer.getPendingGeometry());
+    assertEquals(0, mInvalidateCount);
+
+    runBackgroundWork();
+    assertEquals(144, mBuffer.getPendingGeometry().mSize);
+    assertEquals(1, mInvalidateCount);
+  }
+
+  @Test
+  public void setSize_returningToCurrentSizeClearsPendingGeometry() {
+    mBuffer.setSize(48, true);
+    final SubmissionStatusGeometry current = mBuffer.getGeometry();
+    mBuffer.setSize(96, true);
+    runBackgroundWork();
+    assertEquals(96, mBuffer.getPendingGeometry().mSize);
+
+    mBuffer.setSize(48, true);
+    assertNull(mBuffer.getPendingGeometry());
+    assertSame(current, mBuffer.swap());
+  }
+
+  @Test
+  public void setSize_returningToCurrentSizeIgnoresGeometryBeingBuilt() {
+    mBuffer.setSize(48, true);
+    final SubmissionStatusGeometry current = mBuffer.getGeometry();
+    mBuffer.setSize(96, true);
+    mBuffer.setSize(48, true);
+
+    runBackgroundWork();
+    assertNull(mBuffer.getPendingGeometry());
+    assertEquals(0, mInvalidateCount);
+    assertSame(current, mBuffer.swap());
+  }
+
+  @Test
+  public void setSize_rebuildsZeroSizedGeometrySynchronously() {
+    mBuffer.setSize(0, true);
+    mBuffer.setSize(96, true);
+    assertEquals(96, mBuffer.getGeometry().mSize);
+    assertEquals(0, mBackgroundExecutor.size());
+  }
+
+  @Test
+  public void setSize_offMainThreadBypassesCache() {
+    mBuffer.setSize(48, false);
+    assertEquals(48, mBuffer.getGeometry().mSize);
+    assertNull(GeometryCache.get(48, STROKE_WIDTH));
+
+    final SubmissionStatusGeometry cached = GeometryCache.getOrCreate(96, STROKE_WIDTH);
+    mBuffer.setSize(96, false);
+    assertEquals(96, mBuffer.getGeometry().mSize);
+    assertNotSame(cached, mBuffer.getGeometry());
+    assertEquals(0, mBackgroundExecutor.size());
+  }
+
+  @Test
+  public void getGeometryBytes_includesCurrentAndPendingGeometry() {
+    assertEquals(0, mBuffer.getGeometryBytes());
+
+    mBuffer.setSize(48, true);
+    final long geometryBytes = mBuffer.getGeometry().mRetainedBytes;
+    assertEquals(geometryBytes, mBuffer.getGeometryBytes());
+
+    mBuffer.setSize(96, true);
+    runBackgroundWork();
+    assertEquals(2 * geometryBytes, mBuffer.getGeometryBytes());
+
+    mBuffer.swap();
+    assertEquals(geometryBytes, mBuffer.getGeometryBytes());
+  }
+
+  private void runBackgroundWork() {
+    mBackgroundExecutor.runAll();
+    mMainThreadExecutor.runAll();
+  }
+}
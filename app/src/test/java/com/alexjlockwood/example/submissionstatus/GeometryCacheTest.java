@@ -0,0 +1,158 @@
+package com.alexjlockwood.example.submissionstatus;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class GeometryCacheTest {
+
+  private static final float STROKE_WIDTH = 10;
+
+  private final QueueExecutor mBackgroundExecutor = new QueueExecutor();
+  private final QueueExecutor mMainThreadExecutor = new QueueExecutor();
+
+  private long mDefaultBudgetBytes;
+  private long mGeometryBytes;
+
+  @Before
+  public void setUp() {
+    mDefaultBudgetBytes = GeometryCache.getBudgetBytes();
+    mGeometryBytes = SubmissionStatusGeometry.create(0, STROKE_WIDTH).mRetainedBytes;
+    GeometryCache.clear();
+    GeometryCache.setExecutors(mBackgroundExecutor, mMainThreadExecutor);
+  }
+
+  @After
+  public void tearDown() {
+    GeometryCache.setBudgetBytes(mDefaultBudgetBytes);
+    GeometryCache.setExecutors(null, null);
+    GeometryCache.clear();
+  }
+
+  @Test
+  public void getOrCreate_cachesGeometry() {
+    final SubmissionStatusGeometry geometry = GeometryCache.getOrCreate(48, STROKE_WIDTH);
+    assertSame(geometry, GeometryCache.get(48, STROKE_WIDTH));
+    assertSame(geometry, GeometryCache.getOrCreate(48, STROKE_WIDTH));
+    assertNull(GeometryCache.get(48, STROKE_WIDTH + 1));
+    assertEquals(mGeometryBytes, GeometryCache.getCachedBytes());
+  }
+
+  @Test
+  public void getOrCreate_tracksCachedBytes() {
+    GeometryCache.getOrCreate(48, STROKE_WIDTH);
+    GeometryCache.getOrCreate(96, STROKE_WIDTH);
+    GeometryCache.getOrCreate(96, STROKE_WIDTH + 1);
+    assertEquals(3 * mGeometryBytes, GeometryCache.getCachedBytes());
+  }
+
+  @Test
+  public void getOrCreate_evictsLeastRecentlyUsedWhenOverBudget() {
+    GeometryCache.setBudgetBytes(2 * mGeometryBytes);
+    GeometryCache.getOrCreate(48, STROKE_WIDTH);
+    GeometryCache.getOrCreate(96, STROKE_WIDTH);
+    // Access the first size, so that the second one becomes the least recently used.
+    GeometryCache.get(48, STROKE_WIDTH);
+    GeometryCache.getOrCreate(144, STROKE_WIDTH);
+
+    assertNotNull(GeometryCache.get(48, STROKE_WIDTH));
+    assertNull(GeometryCache.get(96, STROKE_WIDTH));
+    assertNotNull(GeometryCache.get(144, STROKE_WIDTH));
+    assertEquals(2 * mGeometryBytes, GeometryCache.getCachedBytes());
+  }
+
+  @Test
+  public void setBudgetBytes_evictsUntilWithinBudget() {
+    GeometryCache.getOrCreate(48, STROKE_WIDTH);
+    GeometryCache.getOrCreate(96, STROKE_WIDTH);
+    GeometryCache.getOrCreate(144, STROKE_WIDTH);
+
+    GeometryCache.setBudgetBytes(mGeometryBytes);
+    assertNull(GeometryCache.get(48, STROKE_WIDTH));
+    assertNull(GeometryCache.get(96, STROKE_WIDTH));
+    assertNotNull(GeometryCache.get(144, STROKE_WIDTH));
+    assertEquals(mGeometryBytes, GeometryCache.getCachedBytes());
+  }
+
+  @Test
+  public void setBudgetBytes_zeroDisablesCaching() {
+    GeometryCache.getOrCreate(48, STROKE_WIDTH);
+    GeometryCache.setBudgetBytes(0);
+    assertEquals(0, GeometryCache.getCachedBytes());
+
+    assertNotNull(GeometryCache.getOrCreate(96, STROKE_WIDTH));
+    assertNull(GeometryCache.get(96, STROKE_WIDTH));
+    assertEquals(0, GeometryCache.getCachedBytes());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void setBudgetBytes_rejectsNegativeBudget() {
+    GeometryCache.setBudgetBytes(-1);
+  }
+
+  @Test
+  public void getAsync_buildsInBackgroundAndDeliversOnMainThread() {
+    final List<SubmissionStatusGeometry> delivered = new ArrayList<>();
+    GeometryCache.getAsync(48, STROKE_WIDTH, delivered::add);
+    assertEquals(1, mBackgroundExecutor.size());
+    assertEquals(0, mMainThreadExecutor.size());
+
+    mBackgroundExecutor.runAll();
+    assertTrue(delivered.isEmpty());
+    assertNull(GeometryCache.get(48, STROKE_WIDTH));
+
+    mMainThreadExecutor.runAll();
+    assertEquals(1, delivered.size());
+    assertSame(delivered.get(0), GeometryCache.get(48, STROKE_WIDTH));
+    assertEquals(mGeometryBytes, GeometryCache.getCachedBytes());
+  }
+
+  @Test
+  public void getAsync_coalescesRequestsForSizeBeingBuilt() {
+    final List<SubmissionStatusGeometry> first = new ArrayList<>();
+    final List<SubmissionStatusGeometry> second = new ArrayList<>();
+    GeometryCache.getAsync(48, STROKE_WIDTH, first::add);
+    GeometryCache.getAsync(48, STROKE_WIDTH, null);
+    GeometryCache.getAsync(48, STROKE_WIDTH, second::add);
+    assertEquals(1, mBackgroundExecutor.size());
+
+    mBackgroundExecutor.runAll();
+    mMainThreadExecutor.runAll();
+    assertEquals(1, first.size());
+    assertEquals(1, second.size());
+    assertSame(first.get(0), second.get(0));
+    assertEquals(mGeometryBytes, GeometryCache.getCachedBytes());
+  }
+
+  @Test
+  public void getAsync_deliversCachedGeometryImmediately() {
+    final SubmissionStatusGeometry geometry = GeometryCache.getOrCreate(48, STROKE_WIDTH);
+    final List<SubmissionStatusGeometry> delivered = new ArrayList<>();
+    GeometryCache.getAsync(48, STROKE_WIDTH, delivered::add);
+    assertEquals(0, mBackgroundExecutor.size());
+    assertEquals(1, delivered.size());
+    assertSame(geometry, delivered.get(0));
+  }
+
+  @Test
+  public void getAsync_buildsDifferentSizesSeparately() {
+    GeometryCache.getAsync(48, STROKE_WIDTH, null);
+    GeometryCache.getAsync(96, STROKE_WIDTH, null);
+    assertEquals(2, mBackgroundExecutor.size());
+
+    mBackgroundExecutor.runAll();
+    mMainThreadExecutor.runAll();
+    assertNotNull(GeometryCache.get(48, STROKE_WIDTH));
+    assertNotNull(GeometryCache.get(96, STROKE_WIDTH));
+    assertEquals(2 * mGeometryBytes, GeometryCache.getCachedBytes());
+  }
+}
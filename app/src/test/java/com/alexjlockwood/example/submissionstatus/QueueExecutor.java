@@ -0,0 +1,32 @@
+package com.alexjlockwood.example.submissionstatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/** An executor that queues tasks until they are explicitly run by the test. */
+final class QueueExecutor implements Executor {
+
+  private final List<Runnable> mTasks = new ArrayList<>();
+
+  @Override
+  public void execute(Runnable task) {
+    mTasks.add(task);
+  }
+
+  int size() {
+    return mTasks.size();
+  }
+
+  /** Runs the oldest queued task. */
+  void runNext() {
+    mTasks.remove(0).run();
+  }
+
+  /** Runs all queued tasks, including any tasks they queue themselves. */
+  void runAll() {
+    while (!mTasks.isEmpty()) {
+      runNext();
+    }
+  }
+}
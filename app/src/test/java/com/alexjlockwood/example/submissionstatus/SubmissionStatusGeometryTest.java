@@ -0,0 +1,54 @@
+package com.alexjlockwood.example.submissionstatus;
+
+import org.junit.Test;
+import org.openjdk.jol.info.ClassLayout;
+import org.openjdk.jol.info.GraphLayout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SubmissionStatusGeometryTest {
+
+  // The estimated size of a geometry is independent of its size: a 56 byte object, plus the
+  // end points (408 bytes), two control point tables (312 bytes each), and the arrow head
+  // (168 bytes) and exclamation dot (216 bytes) tables minus the rows they share.
+  private static final long EXPECTED_RETAINED_BYTES = 1472;
+
+  // Upper bounds on the actual size of a geometry, as measured on the JVM running the tests.
+  private static final long MAX_SHALLOW_BYTES = 64;
+  private static final long MAX_DEEP_BYTES = 2048;
+
+  private static final float STROKE_WIDTH = 10;
+
+  @Test
+  public void retainedBytes_matchesExpectedLayout() {
+    for (int size : new int[]{0, 48, 96, 512}) {
+      assertEquals(EXPECTED_RETAINED_BYTES,
+          SubmissionStatusGeometry.create(size, STROKE_WIDTH).mRetainedBytes);
+    }
+  }
+
+  @Test
+  public void shallowSize_isWithinLimit() {
+    final long shallowBytes =
+        ClassLayout.parseClass(SubmissionStatusGeometry.class).instanceSize();
+    assertTrue("shallow size was " + shallowBytes, shallowBytes <= MAX_SHALLOW_BYTES);
+  }
+
+  @Test
+  public void deepSize_isWithinLimit() {
+    final SubmissionStatusGeometry geometry = SubmissionStatusGeometry.create(96, STROKE_WIDTH);
+    final long deepBytes = GraphLayout.parseInstance(geometry).totalSize();
+    assertTrue("deep size was " + deepBytes, deepBytes <= MAX_DEEP_BYTES);
+  }
+
+  @Test
+  public void deepSize_sharesRowsBetweenTables() {
+    final SubmissionStatusGeometry geometry = SubmissionStatusGeometry.create(96, STROKE_WIDTH);
+    // The geometry, its 5 tables of 3 row arrays each, and the points: 12 end points, 9 + 9
+    // control points, and only 3 arrow head and 4 exclamation dot points (the others are
+    // shared with the end points).
+    final long objectCount = GraphLayout.parseInstance(geometry).totalCount();
+    assertEquals(1 + 5 + 5 * 3 + 12 + 9 + 9 + 3 + 4, objectCount);
+  }
+}